@@ -17,9 +17,11 @@ import java.util.Optional;
 public class CardsController {
 
     private final CardsService service;
+    private final CoastalTileStore tiles;
 
-    public CardsController(CardsService service) {
+    public CardsController(CardsService service, CoastalTileStore tiles) {
         this.service = service;
+        this.tiles = tiles;
     }
 
     // ---- 5-set responses ----
@@ -29,7 +31,10 @@ public class CardsController {
         @RequestParam double lon,
         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime now
     ) {
-        return service.getFishing(lat, lon, Optional.ofNullable(now));
+        Optional<ZonedDateTime> nowOpt = Optional.ofNullable(now);
+        return tiles.lookup(lat, lon, nowOpt)
+                    .map(u -> service.getFishing(u, lat, lon, nowOpt))
+                    .orElseGet(() -> service.getFishing(lat, lon, nowOpt));
     }
 
     @GetMapping("/clam_digging")
@@ -38,7 +43,10 @@ public class CardsController {
         @RequestParam double lon,
         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime now
     ) {
-        return service.getMudflat(lat, lon, Optional.ofNullable(now));
+        Optional<ZonedDateTime> nowOpt = Optional.ofNullable(now);
+        return tiles.lookup(lat, lon, nowOpt)
+                    .map(u -> service.getMudflat(u, lat, lon, nowOpt))
+                    .orElseGet(() -> service.getMudflat(lat, lon, nowOpt));
     }
 
     @GetMapping("/fisher")
@@ -47,7 +55,10 @@ public class CardsController {
         @RequestParam double lon,
         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime now
     ) {
-        return service.getFisher(lat, lon, Optional.ofNullable(now));
+        Optional<ZonedDateTime> nowOpt = Optional.ofNullable(now);
+        return tiles.lookup(lat, lon, nowOpt)
+                    .map(u -> service.getFisher(u, lat, lon, nowOpt))
+                    .orElseGet(() -> service.getFisher(lat, lon, nowOpt));
     }
 
     @GetMapping("/shipping")
@@ -56,7 +67,10 @@ public class CardsController {
         @RequestParam double lon,
         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime now
     ) {
-        return service.getShipping(lat, lon, Optional.ofNullable(now));
+        Optional<ZonedDateTime> nowOpt = Optional.ofNullable(now);
+        return tiles.lookup(lat, lon, nowOpt)
+                    .map(u -> service.getShipping(u, lat, lon, nowOpt))
+                    .orElseGet(() -> service.getShipping(lat, lon, nowOpt));
     }
 
     // ---- 6-set responses ----
@@ -66,7 +80,10 @@ public class CardsController {
         @RequestParam double lon,
         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime now
     ) {
-        return service.getSurfing(lat, lon, Optional.ofNullable(now));
+        Optional<ZonedDateTime> nowOpt = Optional.ofNullable(now);
+        return tiles.lookup(lat, lon, nowOpt)
+                    .map(u -> service.getSurfing(u, lat, lon, nowOpt))
+                    .orElseGet(() -> service.getSurfing(lat, lon, nowOpt));
     }
 
     @GetMapping("/sea_swimming")
@@ -75,6 +92,9 @@ public class CardsController {
         @RequestParam double lon,
         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime now
     ) {
-        return service.getSeaSwimming(lat, lon, Optional.ofNullable(now));
+        Optional<ZonedDateTime> nowOpt = Optional.ofNullable(now);
+        return tiles.lookup(lat, lon, nowOpt)
+                    .map(u -> service.getSeaSwimming(u, lat, lon, nowOpt))
+                    .orElseGet(() -> service.getSeaSwimming(lat, lon, nowOpt));
     }
 }
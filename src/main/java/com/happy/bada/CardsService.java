@@ -15,6 +15,7 @@ import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 
@@ -26,12 +27,14 @@ public class CardsService {
     private final ObjectMapper om = new ObjectMapper();
 
     // ====== 외부 API 기본 정보 ======
-    private final String base = "https://www.badatime.com/DIVE";
+    private final String base;
     private final String key;
+    private final SnapshotStore history;
+    private final CoastalGrid grid;
     private final ZoneId zone = ZoneId.of("Asia/Seoul");
 
 
-    private final String openMeteoBase = "https://api.open-meteo.com/v1/forecast";
+    private final String openMeteoBase;
 
     // 부산(해운대 인근) 고정 좌표 – 프로토타입 고정
     private static final double BUSAN_LAT = 35.1595;
@@ -50,8 +53,18 @@ public class CardsService {
     );
 
     @Autowired
-    public CardsService(@Value("${bada.api.key}") String key) {
+    public CardsService(
+        @Value("${bada.api.key}") String key,
+        @Value("${bada.api.base:https://www.badatime.com/DIVE}") String base,
+        @Value("${bada.open-meteo.base:https://api.open-meteo.com/v1/forecast}") String openMeteoBase,
+        SnapshotStore history,
+        CoastalGrid grid
+    ) {
         this.key =key;
+        this.base = base;
+        this.openMeteoBase = openMeteoBase;
+        this.history = history;
+        this.grid = grid;
         // JDK 11+ HttpClient (keep-alive, 타임아웃)
         HttpClient jdk = HttpClient.newBuilder()
                                    .version(HttpClient.Version.HTTP_1_1)
@@ -64,8 +77,10 @@ public class CardsService {
     }
 
     private Optional<String> fetchVisibilityKmFromOpenMeteo(Optional<ZonedDateTime> nowOpt) {
-        ZonedDateTime nowZ = nowOpt.orElse(ZonedDateTime.now(zone)).withZoneSameInstant(zone);
+        return visibilityKm(fetchVisibilityJson(nowOpt), nowZ(nowOpt));
+    }
 
+    private JsonNode fetchVisibilityJson(Optional<ZonedDateTime> nowOpt) {
         String url = UriComponentsBuilder.fromHttpUrl(openMeteoBase)
                                          .queryParam("latitude", BUSAN_LAT)
                                          .queryParam("longitude", BUSAN_LON)
@@ -76,10 +91,11 @@ public class CardsService {
                                          .build(true)                                  // 인코딩 보존
                                          .toUriString();
 
-        long t0 = System.currentTimeMillis();
-        JsonNode root = getJson(url);                         // 여기서 4xx면 예외 → 바로 원인 확인 가능
-        long t1 = System.currentTimeMillis();
+        return fetch(SnapshotStore.Kind.VISIBILITY, "visibility", BUSAN_LAT, BUSAN_LON, nowOpt, url); // 여기서 4xx면 예외 → 바로 원인 확인 가능
+    }
 
+    private Optional<String> visibilityKm(JsonNode root, ZonedDateTime nowZ) {
+        if (root == null) return Optional.empty();
         JsonNode hourly = root.path("hourly");
         if (hourly.isMissingNode()) {
             return Optional.empty();
@@ -120,7 +136,76 @@ public class CardsService {
 
     // ===================== Public APIs (5 sets) =====================
     public CardsResponse5 getFishing(double lat, double lon, Optional<ZonedDateTime> nowOpt) {
-        var ctx = loadContext(lat, lon, nowOpt);
+        return fishingOf(loadContext(lat, lon, nowOpt));
+    }
+
+    public CardsResponse5 getMudflat(double lat, double lon, Optional<ZonedDateTime> nowOpt) {
+        return mudflatOf(loadContext(lat, lon, nowOpt));
+    }
+
+    public CardsResponse5 getFisher(double lat, double lon, Optional<ZonedDateTime> nowOpt) {
+        return fisherOf(loadContext(lat, lon, nowOpt));
+    }
+
+    public CardsResponse5 getShipping(double lat, double lon, Optional<ZonedDateTime> nowOpt) {
+        return shippingOf(loadContext(lat, lon, nowOpt), fetchVisibilityKmFromOpenMeteo(nowOpt).orElse("-"));
+    }
+
+    // ===================== Public APIs (6 sets) =====================
+    public CardsResponse6 getSurfing(double lat, double lon, Optional<ZonedDateTime> nowOpt) {
+        return surfingOf(loadContext(lat, lon, nowOpt));
+    }
+
+    public CardsResponse6 getSeaSwimming(double lat, double lon, Optional<ZonedDateTime> nowOpt) {
+        return seaSwimmingOf(loadContext(lat, lon, nowOpt));
+    }
+
+    // ===================== 타일 경로: 저장된 외부 응답 원본을 요청 시각 기준으로 계산 =====================
+    // 물때/일출몰/기준시각/예보 선택은 now 에 따라 달라지므로 완성된 카드가 아니라 원본을 타일에 보관
+    CardsResponse5 getFishing(Upstream u, double lat, double lon, Optional<ZonedDateTime> nowOpt) {
+        return fishingOf(contextOf(u, lat, lon, nowZ(nowOpt)));
+    }
+
+    CardsResponse5 getMudflat(Upstream u, double lat, double lon, Optional<ZonedDateTime> nowOpt) {
+        return mudflatOf(contextOf(u, lat, lon, nowZ(nowOpt)));
+    }
+
+    CardsResponse5 getFisher(Upstream u, double lat, double lon, Optional<ZonedDateTime> nowOpt) {
+        return fisherOf(contextOf(u, lat, lon, nowZ(nowOpt)));
+    }
+
+    CardsResponse5 getShipping(Upstream u, double lat, double lon, Optional<ZonedDateTime> nowOpt) {
+        ZonedDateTime nowZ = nowZ(nowOpt);
+        return shippingOf(contextOf(u, lat, lon, nowZ), visibilityKm(u.visibility(), nowZ).orElse("-"));
+    }
+
+    CardsResponse6 getSurfing(Upstream u, double lat, double lon, Optional<ZonedDateTime> nowOpt) {
+        return surfingOf(contextOf(u, lat, lon, nowZ(nowOpt)));
+    }
+
+    CardsResponse6 getSeaSwimming(Upstream u, double lat, double lon, Optional<ZonedDateTime> nowOpt) {
+        return seaSwimmingOf(contextOf(u, lat, lon, nowZ(nowOpt)));
+    }
+
+    // 타일 배치용: 가시거리는 고정 좌표(부산)라 배치당 1회만, 실패해도 다른 카드는 살리도록 null ("-" 표시)
+    JsonNode fetchTileVisibility() {
+        try {
+            return fetchVisibilityJson(Optional.empty());
+        } catch (Exception e) {
+            LOG.log(Level.WARNING, "[tiles] visibility fetch failed, tiles built without it", e);
+            return null;
+        }
+    }
+
+    // 타일 배치용: 셀 중심 기준 라이브 호출 1회 (temp 는 최근접 관측소 1건만 남겨 타일 크기 축소)
+    Upstream fetchTileUpstream(double lat, double lon, JsonNode visibility) {
+        Upstream u = fetchUpstream(lat, lon, Optional.empty());
+        JsonNode nearestTemp = om.createArrayNode().add(pickNearestTemp(u.temp(), lat, lon));
+        return new Upstream(u.tide(), u.current(), u.forecast(), nearestTemp, visibility);
+    }
+
+    // ===================== 카드 조립 (Context → 응답) =====================
+    private CardsResponse5 fishingOf(Context ctx) {
 
         var set1 = new SetItem("평균 파도 높이", List.of(nvl(ctx.waveHeight,"-"), "M"));
         var set2 = new SetItem("현재 수온", List.of(nvl(ctx.waterTemp,"-"), "°C"));
@@ -138,8 +223,7 @@ public class CardsService {
         return new CardsResponse5(set1, set2, set3, set4, set5);
     }
 
-    public CardsResponse5 getMudflat(double lat, double lon, Optional<ZonedDateTime> nowOpt) {
-        var ctx = loadContext(lat, lon, nowOpt);
+    private CardsResponse5 mudflatOf(Context ctx) {
 
         var set1 = new SetItem("현재 수온", List.of(nvl(ctx.waterTemp,"-"), "°C"));
 
@@ -165,8 +249,7 @@ public class CardsService {
         return new CardsResponse5(set1, set2, set3, set4, set5);
     }
 
-    public CardsResponse5 getFisher(double lat, double lon, Optional<ZonedDateTime> nowOpt) {
-        var ctx = loadContext(lat, lon, nowOpt);
+    private CardsResponse5 fisherOf(Context ctx) {
 
         var set1 = new SetItem("바람", List.of(nvl(ctx.windSpd,"-"), nvl(ctx.windDir,"-")));
         var set2 = new SetItem("평균 파도 높이", List.of(nvl(ctx.waveHeight,"-"), "M"));
@@ -186,12 +269,10 @@ public class CardsService {
         return new CardsResponse5(set1, set2, set3, set4, set5);
     }
 
-    public CardsResponse5 getShipping(double lat, double lon, Optional<ZonedDateTime> nowOpt) {
-        var ctx = loadContext(lat, lon, nowOpt);
+    private CardsResponse5 shippingOf(Context ctx, String visKm) {
 
         var set1 = new SetItem("바람", List.of(nvl(ctx.windSpd,"-"), nvl(ctx.windDir,"-")));
         var set2 = new SetItem("평균 파도 높이", List.of(nvl(ctx.waveHeight,"-"), "M"));
-        String visKm = fetchVisibilityKmFromOpenMeteo(nowOpt).orElse("-");
         var set3 = new SetItem("가시거리", List.of(visKm, "km"));        var set4 = new SetItem("특보", List.of("강풍주의"));
         var set5 = ctx.nextTide.map(nt -> new SetItem(
             "간조만조",
@@ -207,9 +288,7 @@ public class CardsService {
         return new CardsResponse5(set1, set2, set3, set4, set5);
     }
 
-    // ===================== Public APIs (6 sets) =====================
-    public CardsResponse6 getSurfing(double lat, double lon, Optional<ZonedDateTime> nowOpt) {
-        var ctx = loadContext(lat, lon, nowOpt);
+    private CardsResponse6 surfingOf(Context ctx) {
 
         var set1 = new SetItem("평균 파도 높이", List.of(nvl(ctx.waveHeight,"-"), "M"));
         var set2 = new SetItem("바람", List.of(nvl(ctx.windSpd,"-"), nvl(ctx.windDir,"-")));
@@ -221,8 +300,7 @@ public class CardsService {
         return new CardsResponse6(set1, set2, set3, set4, set5, set6);
     }
 
-    public CardsResponse6 getSeaSwimming(double lat, double lon, Optional<ZonedDateTime> nowOpt) {
-        var ctx = loadContext(lat, lon, nowOpt);
+    private CardsResponse6 seaSwimmingOf(Context ctx) {
 
         var set1 = new SetItem("현재 수온", List.of(nvl(ctx.waterTemp,"-"), "°C"));
         var set2 = new SetItem("평균 파도 높이", List.of(nvl(ctx.waveHeight,"-"), "M"));
@@ -238,32 +316,48 @@ public class CardsService {
     private Context loadContext(double lat, double lon, Optional<ZonedDateTime> nowOpt) {
         long tAll0 = System.nanoTime();
 
-        ZonedDateTime nowZ = nowOpt.orElse(ZonedDateTime.now(zone)).withZoneSameInstant(zone);
-        LocalDate dateKst = nowZ.toLocalDate();
-        LocalDateTime nowKst = nowZ.toLocalDateTime();
+        Context ctx = contextOf(fetchUpstream(lat, lon, nowOpt), lat, lon, nowZ(nowOpt));
+
+        long allMs = (System.nanoTime() - tAll0) / 1_000_000;
+        LOG.info(() -> "[ext] ALL external calls + parse took " + allMs + " ms");
+        return ctx;
+    }
+
+    private ZonedDateTime nowZ(Optional<ZonedDateTime> nowOpt) {
+        return nowOpt.orElse(ZonedDateTime.now(zone)).withZoneSameInstant(zone);
+    }
 
-        // ---- 외부 호출 (병렬 + 개별 소요시간 로깅) ----
+    private Upstream fetchUpstream(double lat, double lon, Optional<ZonedDateTime> nowOpt) {
+        // ---- 외부 호출 (병렬 + 개별 소요시간 로깅, 과거 now 는 스냅샷 저장소) ----
         var tideF = CompletableFuture.supplyAsync(
-            () -> time("tide", () -> getJson("%s/tide?lat=%s&lon=%s&key=%s".formatted(base, lat, lon, key))),
+            () -> fetch(SnapshotStore.Kind.TIDE, "tide", lat, lon, nowOpt, "%s/tide?lat=%s&lon=%s&key=%s".formatted(base, lat, lon, key)),
             ioPool
         );
         var currentF = CompletableFuture.supplyAsync(
-            () -> time("current", () -> getJson("%s/current?lat=%s&lon=%s&key=%s".formatted(base, lat, lon, key))),
+            () -> fetch(SnapshotStore.Kind.CURRENT, "current", lat, lon, nowOpt, "%s/current?lat=%s&lon=%s&key=%s".formatted(base, lat, lon, key)),
             ioPool
         );
         var forecastF = CompletableFuture.supplyAsync(
-            () -> time("forecast", () -> getJson("%s/forecast?lat=%s&lon=%s&key=%s".formatted(base, lat, lon, key))),
+            () -> fetch(SnapshotStore.Kind.FORECAST, "forecast", lat, lon, nowOpt, "%s/forecast?lat=%s&lon=%s&key=%s".formatted(base, lat, lon, key)),
             ioPool
         );
         var tempF = CompletableFuture.supplyAsync(
-            () -> time("temp", () -> getJson("%s/temp?lat=%s&lon=%s&key=%s".formatted(base, lat, lon, key))),
+            () -> fetch(SnapshotStore.Kind.TEMP, "temp", lat, lon, nowOpt, "%s/temp?lat=%s&lon=%s&key=%s".formatted(base, lat, lon, key)),
             ioPool
         );
 
-        JsonNode tideArr     = tideF.join();
-        JsonNode currentObj  = currentF.join();
-        JsonNode forecastArr = forecastF.join();
-        JsonNode tempArr     = tempF.join();
+        return new Upstream(tideF.join(), currentF.join(), forecastF.join(), tempF.join(), null);
+    }
+
+    // 외부 응답 원본 → now 기준 컨텍스트 (라이브/타일 공용)
+    private Context contextOf(Upstream u, double lat, double lon, ZonedDateTime nowZ) {
+        LocalDate dateKst = nowZ.toLocalDate();
+        LocalDateTime nowKst = nowZ.toLocalDateTime();
+
+        JsonNode tideArr     = u.tide();
+        JsonNode currentObj  = u.current();
+        JsonNode forecastArr = u.forecast();
+        JsonNode tempArr     = u.temp();
 
         // ---- tide: 오늘(로컬 KST) 항목 선택 ----
         JsonNode todayTide = pickTideForDate(tideArr, dateKst);
@@ -309,9 +403,6 @@ public class CardsService {
         String skyText    = firstNonBlank(fcSky, curSky);
         String airTemp    = firstNonBlank(fcTemp, curTemp);
 
-        long allMs = (System.nanoTime() - tAll0) / 1_000_000;
-        LOG.info(() -> "[ext] ALL external calls + parse took " + allMs + " ms");
-
         // ✅ nowKst 기준 문자열을 컨텍스트에 싣고, 카드에서 사용
         return new Context(
             waveHeight, wavePeriod, waveDir, windSpd, windDir, waterTemp, skyText, airTemp,
@@ -319,6 +410,23 @@ public class CardsService {
         );
     }
 
+    // ====== 외부 호출: 과거 now 는 스냅샷 저장소 범위 조회, 없거나 현재면 라이브 호출 후 기록 ======
+    private JsonNode fetch(SnapshotStore.Kind kind, String name, double lat, double lon,
+                           Optional<ZonedDateTime> nowOpt, String url) {
+        // 해안 격자 안이면 타일 배치와 같은 셀 중심으로 기록/조회
+        // (타일로 응답된 요청은 여기를 거치지 않으므로 해당 좌표의 이력은 배치가 셀 중심으로 남긴 것뿐)
+        double[] cell = grid.snap(lat, lon).orElse(new double[] { lat, lon });
+
+        if (history.isPast(nowOpt)) {
+            Optional<JsonNode> snap = time(name + "@history", () -> history.at(kind, cell[0], cell[1], nowOpt.get()));
+            if (snap.isPresent()) return snap.get();
+            LOG.info(() -> "[history] no " + name + " snapshot at " + nowOpt.get() + ", falling back to live");
+        }
+        JsonNode live = time(name, () -> getJson(url));
+        history.record(kind, cell[0], cell[1], live);
+        return live;
+    }
+
     // ====== 타이머 래퍼 ======
     private <T> T time(String name, java.util.function.Supplier<T> call) {
         long t0 = System.nanoTime();
@@ -531,6 +639,9 @@ public class CardsService {
     public record CardsResponse6(SetItem set1, SetItem set2, SetItem set3, SetItem set4, SetItem set5, SetItem set6) {}
 
     // ===================== 컨텍스트 =====================
+    // 외부 응답 원본 묶음 (visibility 는 타일에만 포함, 라이브 경로는 null)
+    record Upstream(JsonNode tide, JsonNode current, JsonNode forecast, JsonNode temp, JsonNode visibility) {}
+
     private record Context(
         String waveHeight, String wavePeriod, String waveDir,
         String windSpd, String windDir,
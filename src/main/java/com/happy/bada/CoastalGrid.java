@@ -0,0 +1,87 @@
+package com.happy.bada;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * 해안 격자 설정.
+ * 타일 배치(CoastalTileStore)와 스냅샷 기록/조회(CardsService → SnapshotStore)가 같은 셀 중심 좌표를 쓰도록 공유.
+ */
+@Component
+public class CoastalGrid {
+
+    private static final Logger LOG = Logger.getLogger(CoastalGrid.class.getName());
+
+    private final double originLat;
+    private final double originLon;
+    private final double step;
+
+    // 설정 좌표가 속한 셀 → 셀 중심 (cellKey 오름차순)
+    private final SortedMap<Long, double[]> cells;
+
+    public CoastalGrid(
+        @Value("${bada.tiles.origin-lat:33.0}") double originLat,
+        @Value("${bada.tiles.origin-lon:124.5}") double originLon,
+        @Value("${bada.tiles.step:0.05}") double step,
+        // "lat:lon,lat:lon,..." – 기본값은 부산(해운대) 1곳
+        @Value("${bada.tiles.points:35.1595:129.1626}") String points
+    ) {
+        this.originLat = originLat;
+        this.originLon = originLon;
+        this.step = step;
+
+        TreeMap<Long, double[]> out = new TreeMap<>();
+        for (double[] p : parsePoints(points)) {
+            long key = cellKey(p[0], p[1], originLat, originLon, step);
+            out.putIfAbsent(key, center(key));
+        }
+        this.cells = Collections.unmodifiableSortedMap(out);
+    }
+
+    public double originLat() { return originLat; }
+    public double originLon() { return originLon; }
+    public double step() { return step; }
+
+    /** 배치 대상 셀 (cellKey → 셀 중심 위/경도). */
+    public SortedMap<Long, double[]> cells() { return cells; }
+
+    /** 설정된 셀 안의 좌표면 그 셀 중심, 아니면 empty. */
+    public Optional<double[]> snap(double lat, double lon) {
+        return Optional.ofNullable(cells.get(cellKey(lat, lon)));
+    }
+
+    public long cellKey(double lat, double lon) {
+        return cellKey(lat, lon, originLat, originLon, step);
+    }
+
+    // 위/경도 → (row, col) 최근접 셀 → long 키 (row 상위 32비트, col 하위 32비트)
+    static long cellKey(double lat, double lon, double originLat, double originLon, double step) {
+        long row = Math.round((lat - originLat) / step);
+        long col = Math.round((lon - originLon) / step);
+        return (row << 32) | (col & 0xFFFFFFFFL);
+    }
+
+    private double[] center(long key) {
+        int row = (int) (key >> 32);
+        int col = (int) key;
+        return new double[] { originLat + row * step, originLon + col * step };
+    }
+
+    private static List<double[]> parsePoints(String raw) {
+        List<double[]> out = new ArrayList<>();
+        if (raw == null || raw.isBlank()) return out;
+        for (String tok : raw.split(",")) {
+            String[] ll = tok.trim().split(":");
+            if (ll.length != 2) continue;
+            try {
+                out.add(new double[] { Double.parseDouble(ll[0].trim()), Double.parseDouble(ll[1].trim()) });
+            } catch (NumberFormatException e) {
+                LOG.warning(() -> "[tiles] bad point ignored: " + tok);
+            }
+        }
+        return out;
+    }
+}
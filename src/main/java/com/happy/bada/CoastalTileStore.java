@@ -0,0 +1,268 @@
+package com.happy.bada;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.happy.bada.CardsService.Upstream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 해안 격자 타일 저장소.
+ * - 배치: 설정된 해안 좌표를 격자 셀로 스냅 → 셀마다 외부 호출 1회 → 응답 원본(JSON)을 타일 파일로 기록
+ * - 조회: 요청 좌표를 같은 격자로 스냅 → mmap 된 인덱스 이진 탐색 → 원본 반환 (격자 밖/만료/손상이면 empty → 라이브 경로)
+ * 물때·일출몰·기준시각·예보 선택은 요청 시각에 따라 달라지므로 카드는 조회 시 CardsService 가 현재 시각으로 계산.
+ *
+ * 파일 포맷 (big-endian)
+ *   header : magic(int) version(int) builtAtMillis(long) originLat(double) originLon(double) step(double) cellCount(int)
+ *   index  : cellCount × [ cellKey(long) offset(int) length(int) ]  ← cellKey 오름차순
+ *   data   : 셀별 {tide,current,forecast,temp,visibility} JSON(UTF-8) 이어붙임
+ *
+ * 파일 교체는 매핑 중인 파일 위로 ATOMIC_MOVE 하므로 POSIX(Linux) 전제.
+ * Windows 에서는 교체가 실패 → 경고 로그 후 직전 타일 유지, max-age 지나면 라이브 경로로 전환.
+ */
+@Component
+public class CoastalTileStore {
+
+    private static final int MAGIC = 0x42444131; // "BDA1"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 8 + 8 + 4;
+    private static final int INDEX_ENTRY_BYTES = 8 + 4 + 4;
+
+    private static final Logger LOG = Logger.getLogger(CoastalTileStore.class.getName());
+
+    private final CardsService service;
+    private final CoastalGrid grid;
+    private final ObjectMapper om = new ObjectMapper();
+
+    private final boolean enabled;
+    private final Path file;
+    private final Duration maxAge;
+
+    // 배치 완료 시 통째로 교체 (조회 스레드는 항상 완결된 타일만 봄)
+    private volatile Tiles tiles;
+
+    public CoastalTileStore(
+        CardsService service,
+        CoastalGrid grid,
+        @Value("${bada.tiles.enabled:false}") boolean enabled,
+        @Value("${bada.tiles.file:data/coastal-tiles.bin}") String file,
+        @Value("${bada.tiles.max-age-minutes:90}") long maxAgeMinutes
+    ) {
+        this.service = service;
+        this.grid = grid;
+        this.enabled = enabled;
+        this.file = Path.of(file);
+        this.maxAge = Duration.ofMinutes(maxAgeMinutes);
+
+        // 재기동 시 직전 배치 결과를 바로 사용
+        if (enabled && Files.exists(this.file)) {
+            try {
+                this.tiles = map(this.file);
+            } catch (Exception e) {
+                LOG.log(Level.WARNING, "[tiles] existing tile file ignored: " + this.file, e);
+            }
+        }
+    }
+
+    // ===================== 조회 (hot path) =====================
+
+    /** 격자 안 + 신선한 타일이 있으면 해당 셀의 외부 응답 원본, 아니면 empty. */
+    public Optional<Upstream> lookup(double lat, double lon, Optional<ZonedDateTime> nowOpt) {
+        Tiles t = tiles;
+        // 과거/미래 시각 질의는 타일(배치 시점 수집분)로 답할 수 없음
+        if (t == null || nowOpt.isPresent()) return Optional.empty();
+        if (Duration.between(t.builtAt, Instant.now()).compareTo(maxAge) > 0) return Optional.empty();
+
+        try {
+            int idx = t.find(CoastalGrid.cellKey(lat, lon, t.originLat, t.originLon, t.step));
+            if (idx < 0) return Optional.empty();
+
+            JsonNode root = om.readTree(t.payload(idx));
+            return Optional.of(new Upstream(
+                root.path("tide"), root.path("current"), root.path("forecast"), root.path("temp"),
+                root.hasNonNull("visibility") ? root.get("visibility") : null
+            ));
+        } catch (Exception e) {
+            // 손상 타일은 500 대신 라이브 경로로
+            LOG.log(Level.WARNING, "[tiles] lookup failed, falling back to live: " + lat + "," + lon, e);
+            return Optional.empty();
+        }
+    }
+
+    // ===================== 배치 =====================
+
+    @Scheduled(
+        initialDelayString = "${bada.tiles.initial-delay-ms:10000}",
+        fixedDelayString = "${bada.tiles.refresh-ms:1800000}"
+    )
+    public void rebuild() {
+        if (!enabled) return;
+        // 신선도 기준은 수집 시작 시각 (배치가 길어도 실제보다 새것처럼 보이지 않게)
+        long builtAt = System.currentTimeMillis();
+        long t0 = System.nanoTime();
+
+        // 셀 중복 제거 + 정렬 완료본 (인덱스 이진 탐색용)
+        SortedMap<Long, double[]> cells = grid.cells();
+
+        JsonNode visibility = cells.isEmpty() ? null : service.fetchTileVisibility();
+
+        TreeMap<Long, byte[]> built = new TreeMap<>();
+        for (var e : cells.entrySet()) {
+            double[] c = e.getValue();
+            try {
+                Upstream u = service.fetchTileUpstream(c[0], c[1], visibility);
+                ObjectNode root = om.createObjectNode();
+                root.set("tide", u.tide());
+                root.set("current", u.current());
+                root.set("forecast", u.forecast());
+                root.set("temp", u.temp());
+                root.set("visibility", u.visibility());
+                built.put(e.getKey(), om.writeValueAsBytes(root));
+            } catch (Exception ex) {
+                // 실패 셀은 빠지고 조회 시 라이브 경로로 감
+                LOG.log(Level.WARNING, "[tiles] cell " + c[0] + "," + c[1] + " skipped", ex);
+            }
+        }
+
+        // 업스트림 전면 장애 시 직전 타일 유지 (신선도 만료되면 자연히 라이브로 전환)
+        if (built.isEmpty() && !cells.isEmpty()) {
+            LOG.warning("[tiles] no cell built, keeping previous tiles");
+            return;
+        }
+
+        try {
+            publish(built, builtAt);
+        } catch (FileSystemException ex) {
+            LOG.log(Level.WARNING, "[tiles] could not replace mapped tile file (non-POSIX filesystem?), keeping previous tiles: " + file, ex);
+            return;
+        } catch (IOException ex) {
+            LOG.log(Level.WARNING, "[tiles] write failed: " + file, ex);
+            return;
+        }
+
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+        LOG.info(() -> "[tiles] rebuilt " + built.size() + "/" + cells.size() + " cells in " + ms + " ms");
+    }
+
+    // 기록 + 재매핑 (배치/테스트 공용)
+    void publish(SortedMap<Long, byte[]> built, long builtAtMillis) throws IOException {
+        write(built, builtAtMillis);
+        tiles = map(file);
+    }
+
+    private void write(SortedMap<Long, byte[]> built, long builtAtMillis) throws IOException {
+        long dataStart = HEADER_BYTES + (long) built.size() * INDEX_ENTRY_BYTES;
+        long dataBytes = 0;
+        for (byte[] b : built.values()) dataBytes += b.length;
+        if (dataStart + dataBytes > Integer.MAX_VALUE) {
+            throw new IOException("tile file too large: " + (dataStart + dataBytes) + " bytes");
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate((int) (dataStart + dataBytes)).order(ByteOrder.BIG_ENDIAN);
+        buf.putInt(MAGIC).putInt(VERSION).putLong(builtAtMillis)
+           .putDouble(grid.originLat()).putDouble(grid.originLon()).putDouble(grid.step())
+           .putInt(built.size());
+
+        int offset = (int) dataStart;
+        for (var e : built.entrySet()) {
+            buf.putLong(e.getKey()).putInt(offset).putInt(e.getValue().length);
+            offset += e.getValue().length;
+        }
+        for (byte[] b : built.values()) buf.put(b);
+        buf.flip();
+
+        // 임시 파일에 쓰고 원자적 교체 → 기존 매핑/다른 프로세스가 반쯤 쓰인 파일을 보지 않음
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // 매핑 + 구조 검증 (잘린/다른 파일은 여기서 거절 → 조회 경로에서 범위 밖 접근 없음)
+    private static Tiles map(Path file) throws IOException {
+        MappedByteBuffer mm;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) throw new IOException("tile file too large: " + file);
+            mm = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()); // 채널 닫아도 매핑 유지
+        }
+        mm.order(ByteOrder.BIG_ENDIAN);
+
+        int capacity = mm.capacity();
+        if (capacity < HEADER_BYTES || mm.getInt(0) != MAGIC || mm.getInt(4) != VERSION) {
+            throw new IOException("not a tile file: " + file);
+        }
+        int cellCount = mm.getInt(40);
+        long dataStart = HEADER_BYTES + (long) cellCount * INDEX_ENTRY_BYTES;
+        if (cellCount < 0 || dataStart > capacity) {
+            throw new IOException("truncated tile index: " + cellCount + " cells, " + capacity + " bytes in " + file);
+        }
+        long prevKey = Long.MIN_VALUE;
+        for (int i = 0; i < cellCount; i++) {
+            int at = HEADER_BYTES + i * INDEX_ENTRY_BYTES;
+            long key = mm.getLong(at);
+            long offset = mm.getInt(at + 8);
+            long length = mm.getInt(at + 12);
+            if ((i > 0 && key <= prevKey) || offset < dataStart || length < 0 || offset + length > capacity) {
+                throw new IOException("corrupt tile index entry " + i + " in " + file);
+            }
+            prevKey = key;
+        }
+
+        return new Tiles(
+            mm,
+            Instant.ofEpochMilli(mm.getLong(8)),
+            mm.getDouble(16), mm.getDouble(24), mm.getDouble(32),
+            cellCount
+        );
+    }
+
+    // ===================== mmap 된 타일 뷰 =====================
+    private record Tiles(
+        MappedByteBuffer mm,
+        Instant builtAt,
+        double originLat, double originLon, double step,
+        int cellCount
+    ) {
+        private static final int INDEX_START = HEADER_BYTES;
+
+        // 인덱스에서 cellKey 이진 탐색 (absolute get → 스레드 간 position 공유 없음)
+        int find(long key) {
+            int lo = 0, hi = cellCount - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                long k = mm.getLong(INDEX_START + mid * INDEX_ENTRY_BYTES);
+                if (k < key) lo = mid + 1;
+                else if (k > key) hi = mid - 1;
+                else return mid;
+            }
+            return -1;
+        }
+
+        byte[] payload(int idx) {
+            int at = INDEX_START + idx * INDEX_ENTRY_BYTES + 8;
+            int offset = mm.getInt(at);
+            int length = mm.getInt(at + 4);
+            byte[] out = new byte[length];
+            mm.get(offset, out);
+            return out;
+        }
+    }
+}
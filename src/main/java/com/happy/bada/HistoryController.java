@@ -0,0 +1,53 @@
+package com.happy.bada;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+@RestController
+@RequestMapping("/api/history")
+public class HistoryController {
+
+    private final SnapshotStore history;
+    private final long exportMaxDays;
+
+    public HistoryController(
+        SnapshotStore history,
+        @Value("${bada.history.export-max-days:31}") long exportMaxDays
+    ) {
+        this.history = history;
+        this.exportMaxDays = exportMaxDays;
+    }
+
+    // ---- 분석 배치용 일괄 내보내기 (NDJSON 스트리밍) ----
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        if (!history.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "history store disabled");
+        }
+        if (to.isBefore(from)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "to must not be before from");
+        }
+        if (ChronoUnit.DAYS.between(from, to) + 1 > exportMaxDays) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "range exceeds " + exportMaxDays + " days");
+        }
+
+        return ResponseEntity.ok()
+                             .contentType(MediaType.APPLICATION_NDJSON)
+                             .body(out -> history.export(from, to, out));
+    }
+}
@@ -0,0 +1,430 @@
+package com.happy.bada;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 외부 API 응답 스냅샷 시계열 저장소 (append-only).
+ * - 기록: loadContext 의 라이브 호출 결과(tide/current/forecast/temp/visibility)를 수집 시각(KST) 일자 파일에 추가
+ * - 조회: 과거 now 질의 → 해당 일자 파티션에서 (종류, 셀) 시계열을 now 이하 최신 1건으로 범위 탐색
+ * - 내보내기: 기간 내 파티션을 NDJSON 으로 순차 덤프 (분석 배치용)
+ *
+ * 파티션 파일 {dir}/yyyy-MM-dd.snap, 레코드 (big-endian)
+ *   deflatedLen(int) kind(byte) cellKey(long) fetchedAtMillis(long) rawLen(int) deflated JSON(UTF-8)
+ * 인덱스는 파일이 원본이며, 파티션 첫 접근 시 헤더만 훑어 메모리에 재구성.
+ *
+ * 상한: (종류, 셀)별 dedupe-minutes 안의 재수집은 기록 생략 (dedupe 표는 최근 10k 시계열 LRU),
+ * 메모리 인덱스는 오늘 + 최근 cached-days 일만 유지, 기록 대기열은 queue-capacity 초과 시 버리고 경고.
+ */
+@Component
+public class SnapshotStore {
+
+    public enum Kind { TIDE, CURRENT, FORECAST, TEMP, VISIBILITY }
+
+    private static final int RECORD_HEADER_BYTES = 4 + 1 + 8 + 8 + 4;
+    private static final int MAX_DEDUPE_KEYS = 10_000;
+
+    private static final Logger LOG = Logger.getLogger(SnapshotStore.class.getName());
+
+    private final ObjectMapper om = new ObjectMapper();
+    private final ZoneId zone = ZoneId.of("Asia/Seoul");
+
+    private final boolean enabled;
+    private final Path dir;
+    private final double cellStep;
+    private final Duration pastThreshold;
+    private final Duration maxGap;
+    private final long dedupeMillis;
+    private final int cachedDays;
+
+    // 일자 → 파티션 인덱스 적재 (접근 순서 LRU, partitions 자체로 동기화)
+    // 파일 스캔은 잠금 밖에서 하고 완료되면 future 로 공개 → 느린 과거 일자 적재가 다른 일자 기록/조회를 막지 않음
+    private final LinkedHashMap<LocalDate, CompletableFuture<Partition>> partitions = new LinkedHashMap<>(16, 0.75f, true);
+
+    // (종류, 셀) → 마지막 기록 시각 (dedupe 용, 접근 순서 LRU 상한 → 창 밖으로 밀린 시계열은 일찍 다시 기록될 수 있음)
+    private final Map<SeriesKey, Long> lastRecorded = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<SeriesKey, Long> eldest) {
+            return size() > MAX_DEDUPE_KEYS;
+        }
+    };
+
+    // 단일 writer: 파티션 파일 append 순서 보장 + 요청 스레드에서 디스크 I/O 제거
+    // 대기열은 유한, 넘치면 버림 (디스크 지연이 힙 증가로 번지지 않게)
+    private final AtomicLong dropped = new AtomicLong();
+    private final ThreadPoolExecutor writer;
+
+    public SnapshotStore(
+        @Value("${bada.history.enabled:false}") boolean enabled,
+        @Value("${bada.history.dir:data/history}") String dir,
+        @Value("${bada.history.cell-step:0.01}") double cellStep,
+        @Value("${bada.history.past-threshold-minutes:10}") long pastThresholdMinutes,
+        @Value("${bada.history.max-gap-hours:6}") long maxGapHours,
+        @Value("${bada.history.dedupe-minutes:15}") long dedupeMinutes,
+        @Value("${bada.history.cached-days:7}") int cachedDays,
+        @Value("${bada.history.queue-capacity:1000}") int queueCapacity
+    ) {
+        this.enabled = enabled;
+        this.dir = Path.of(dir);
+        this.cellStep = cellStep;
+        this.pastThreshold = Duration.ofMinutes(pastThresholdMinutes);
+        this.maxGap = Duration.ofHours(maxGapHours);
+        this.dedupeMillis = Duration.ofMinutes(dedupeMinutes).toMillis();
+        this.cachedDays = cachedDays;
+        this.writer = new ThreadPoolExecutor(
+            1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            r -> {
+                Thread t = new Thread(r);
+                t.setName("snapshot-writer");
+                t.setDaemon(true);
+                return t;
+            },
+            (r, ex) -> {
+                long n = dropped.incrementAndGet();
+                if (n == 1 || n % 100 == 0) {
+                    LOG.warning(() -> "[history] writer queue full or closed, " + n + " snapshots dropped so far");
+                }
+            }
+        );
+    }
+
+    // 종료 시 대기 중인 스냅샷까지 기록 후 writer 종료
+    @PreDestroy
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                LOG.warning(() -> "[history] shutdown timed out, " + writer.getQueue().size() + " snapshots not written");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** now 가 지정됐고 현재보다 임계값 이상 과거면 true → 저장소 조회 대상. */
+    public boolean isPast(Optional<ZonedDateTime> nowOpt) {
+        return enabled && nowOpt.isPresent()
+            && nowOpt.get().toInstant().isBefore(Instant.now().minus(pastThreshold));
+    }
+
+    // ===================== 기록 =====================
+
+    public void record(Kind kind, double lat, double lon, JsonNode payload) {
+        record(kind, lat, lon, payload, Instant.now());
+    }
+
+    void record(Kind kind, double lat, double lon, JsonNode payload, Instant fetchedAt) {
+        if (!enabled || payload == null || payload.isMissingNode()) return;
+        long cell = cellKey(lat, lon);
+        if (!claim(new SeriesKey(kind, cell), fetchedAt.toEpochMilli())) return;
+        writer.execute(() -> {
+            try {
+                partition(fetchedAt.atZone(zone).toLocalDate())
+                    .append(kind, cell, fetchedAt.toEpochMilli(), om.writeValueAsBytes(payload));
+            } catch (Exception e) {
+                LOG.log(Level.WARNING, "[history] append failed: " + kind, e);
+            }
+        });
+    }
+
+    // 업스트림은 길어야 시간 단위 갱신 → 같은 (종류, 셀)의 dedupe 창 안 재수집은 중복으로 보고 생략
+    private boolean claim(SeriesKey key, long fetchedAt) {
+        synchronized (lastRecorded) {
+            Long prev = lastRecorded.get(key);
+            if (prev != null && Math.abs(fetchedAt - prev) < dedupeMillis) return false;
+            lastRecorded.put(key, fetchedAt);
+            return true;
+        }
+    }
+
+    // ===================== 조회 (과거 now) =====================
+
+    /** at 시점 이하 가장 최근 스냅샷 (당일 → 전일 파티션 순, maxGap 이내). */
+    public Optional<JsonNode> at(Kind kind, double lat, double lon, ZonedDateTime at) {
+        if (!enabled) return Optional.empty();
+        long cell = cellKey(lat, lon);
+        long atMillis = at.toInstant().toEpochMilli();
+        long minMillis = atMillis - maxGap.toMillis();
+
+        LocalDate day = at.withZoneSameInstant(zone).toLocalDate();
+        for (LocalDate d = day; !d.isBefore(Instant.ofEpochMilli(minMillis).atZone(zone).toLocalDate()); d = d.minusDays(1)) {
+            Path file = partitionFile(d);
+            if (!isCached(d) && !Files.exists(file)) continue;
+            try {
+                Optional<byte[]> raw = partition(d).floor(kind, cell, atMillis, minMillis);
+                if (raw.isPresent()) return Optional.of(om.readTree(raw.get()));
+            } catch (Exception e) {
+                LOG.log(Level.WARNING, "[history] read failed: " + file, e);
+                return Optional.empty();
+            }
+        }
+        return Optional.empty();
+    }
+
+    // ===================== 내보내기 =====================
+
+    /** [from, to] 일자 파티션을 NDJSON 한 줄 = 스냅샷 1건으로 기록 순서대로 출력. */
+    public void export(LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        if (to.isBefore(from)) throw new IllegalArgumentException("to < from: " + from + " ~ " + to);
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            Path file = partitionFile(d);
+            if (!Files.exists(file)) continue;
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = ch.size();
+                long pos = 0;
+                Header h;
+                while ((h = readHeader(ch, pos, size)) != null) {
+                    byte[] json = readPayload(ch, pos, h);
+                    ObjectNode line = om.createObjectNode();
+                    line.put("kind", h.kind().name().toLowerCase(Locale.ROOT));
+                    line.put("lat", cellCoord((int) (h.cell() >> 32)));
+                    line.put("lon", cellCoord((int) h.cell()));
+                    line.put("fetchedAt", Instant.ofEpochMilli(h.fetchedAt()).atZone(zone).toOffsetDateTime().toString());
+                    line.set("payload", om.readTree(json));
+                    out.write(om.writeValueAsBytes(line));
+                    out.write('\n');
+                    pos = h.next();
+                }
+            }
+        }
+        out.flush();
+    }
+
+    // ===================== 파티션 =====================
+
+    private Partition partition(LocalDate day) throws IOException {
+        CompletableFuture<Partition> f;
+        boolean loader = false;
+        synchronized (partitions) {
+            f = partitions.get(day);
+            if (f == null) {
+                f = new CompletableFuture<>();
+                partitions.put(day, f);
+                evictPastDays();
+                loader = true;
+            }
+        }
+
+        if (loader) {
+            try {
+                f.complete(Partition.load(partitionFile(day)));
+            } catch (IOException | RuntimeException e) {
+                synchronized (partitions) {
+                    partitions.remove(day, f);
+                }
+                f.completeExceptionally(e);
+            }
+        }
+
+        try {
+            return f.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw e;
+        }
+    }
+
+    private boolean isCached(LocalDate day) {
+        synchronized (partitions) {
+            return partitions.containsKey(day);
+        }
+    }
+
+    // 오늘 파티션은 항상 유지, 지난 날짜는 최근 접근 cachedDays 개만 (파일이 원본이라 다시 읽으면 됨)
+    private void evictPastDays() {
+        LocalDate today = LocalDate.now(zone);
+        int past = 0;
+        for (LocalDate d : partitions.keySet()) {
+            if (!d.equals(today)) past++;
+        }
+        Iterator<LocalDate> it = partitions.keySet().iterator(); // 오래된 접근 순
+        while (past > cachedDays && it.hasNext()) {
+            if (!it.next().equals(today)) {
+                it.remove();
+                past--;
+            }
+        }
+    }
+
+    private Path partitionFile(LocalDate day) {
+        return dir.resolve(day + ".snap");
+    }
+
+    private record SeriesKey(Kind kind, long cell) {}
+
+    private record Header(Kind kind, long cell, long fetchedAt, int rawLen, int deflatedLen, long next) {}
+
+    // (종류, 셀) → 수집시각 → 파일 오프셋
+    private static final class Partition {
+        private final Path file;
+        private final Map<SeriesKey, TreeMap<Long, Long>> index = new HashMap<>();
+        private long end;
+
+        private Partition(Path file) { this.file = file; }
+
+        static Partition load(Path file) throws IOException {
+            Partition p = new Partition(file);
+            if (!Files.exists(file)) return p;
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = ch.size();
+                long pos = 0;
+                Header h;
+                while ((h = readHeader(ch, pos, size)) != null) {
+                    p.put(h.kind(), h.cell(), h.fetchedAt(), pos);
+                    pos = h.next();
+                }
+                p.end = pos; // 비정상 종료로 잘린 꼬리는 다음 append 에서 덮어씀
+            }
+            return p;
+        }
+
+        synchronized void append(Kind kind, long cell, long fetchedAt, byte[] json) throws IOException {
+            byte[] deflated = deflate(json);
+            ByteBuffer buf = ByteBuffer.allocate(RECORD_HEADER_BYTES + deflated.length);
+            buf.putInt(deflated.length).put((byte) kind.ordinal()).putLong(cell).putLong(fetchedAt).putInt(json.length)
+               .put(deflated)
+               .flip();
+
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                long size = ch.size();
+                if (size > end) {
+                    // 캐시 축출 후 재적재된 인스턴스면 뒤에 이어진 완결 레코드가 있을 수 있음 → 반영하고 잘린 꼬리만 제거
+                    Header h;
+                    while ((h = readHeader(ch, end, size)) != null) {
+                        put(h.kind(), h.cell(), h.fetchedAt(), end);
+                        end = h.next();
+                    }
+                    if (size > end) ch.truncate(end);
+                }
+                long pos = end;
+                while (buf.hasRemaining()) pos += ch.write(buf, pos);
+                put(kind, cell, fetchedAt, end);
+                end = pos;
+            }
+        }
+
+        synchronized Optional<byte[]> floor(Kind kind, long cell, long atMillis, long minMillis) throws IOException {
+            TreeMap<Long, Long> series = index.get(new SeriesKey(kind, cell));
+            if (series == null) return Optional.empty();
+            Map.Entry<Long, Long> e = series.floorEntry(atMillis);
+            if (e == null || e.getKey() < minMillis) return Optional.empty();
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                Header h = readHeader(ch, e.getValue(), ch.size());
+                if (h == null) return Optional.empty();
+                return Optional.of(readPayload(ch, e.getValue(), h));
+            }
+        }
+
+        private void put(Kind kind, long cell, long fetchedAt, long offset) {
+            index.computeIfAbsent(new SeriesKey(kind, cell), k -> new TreeMap<>()).put(fetchedAt, offset);
+        }
+    }
+
+    // ===================== 레코드 I/O =====================
+
+    // 완결된 레코드면 헤더, 파일 끝/잘린 레코드면 null (size 는 스캔 시작 시 1회 조회한 값)
+    private static Header readHeader(FileChannel ch, long pos, long size) throws IOException {
+        if (pos + RECORD_HEADER_BYTES > size) return null;
+        ByteBuffer hb = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        while (hb.hasRemaining()) {
+            if (ch.read(hb, pos + hb.position()) < 0) return null;
+        }
+        hb.flip();
+        int deflatedLen = hb.getInt();
+        int kind = hb.get();
+        long cell = hb.getLong();
+        long fetchedAt = hb.getLong();
+        int rawLen = hb.getInt();
+        long next = pos + RECORD_HEADER_BYTES + deflatedLen;
+        if (deflatedLen < 0 || rawLen < 0 || kind < 0 || kind >= Kind.values().length || next > size) return null;
+        return new Header(Kind.values()[kind], cell, fetchedAt, rawLen, deflatedLen, next);
+    }
+
+    private static byte[] readPayload(FileChannel ch, long pos, Header h) throws IOException {
+        ByteBuffer db = ByteBuffer.allocate(h.deflatedLen());
+        while (db.hasRemaining()) {
+            if (ch.read(db, pos + RECORD_HEADER_BYTES + db.position()) < 0) throw new IOException("truncated record at " + pos);
+        }
+        return inflate(db.array(), h.rawLen());
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater d = new Deflater(Deflater.BEST_SPEED);
+        try {
+            d.setInput(raw);
+            d.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] chunk = new byte[8192];
+            while (!d.finished()) {
+                int n = d.deflate(chunk);
+                out.write(chunk, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            d.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] deflated, int rawLen) throws IOException {
+        Inflater inf = new Inflater();
+        try {
+            inf.setInput(deflated);
+            byte[] out = new byte[rawLen];
+            int n = 0;
+            while (n < rawLen && !inf.finished()) {
+                int r = inf.inflate(out, n, rawLen - n);
+                if (r == 0 && (inf.needsInput() || inf.needsDictionary())) break;
+                n += r;
+            }
+            if (n != rawLen) throw new IOException("corrupt snapshot: " + n + "/" + rawLen + " bytes");
+            return out;
+        } catch (DataFormatException e) {
+            throw new IOException("corrupt snapshot", e);
+        } finally {
+            inf.end();
+        }
+    }
+
+    // 위/경도 → cellStep 격자 (row 상위 32비트, col 하위 32비트)
+    private long cellKey(double lat, double lon) {
+        long row = Math.round(lat / cellStep);
+        long col = Math.round(lon / cellStep);
+        return (row << 32) | (col & 0xFFFFFFFFL);
+    }
+
+    // 셀 인덱스 → 격자 좌표 (부동소수 잡음 제거, 소수 6자리)
+    private double cellCoord(int idx) {
+        return Math.round(idx * cellStep * 1e6) / 1e6;
+    }
+}
@@ -0,0 +1,104 @@
+package com.happy.bada;
+
+import com.happy.bada.CardsService.Upstream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoastalTileStoreTests {
+
+	private static final double ORIGIN_LAT = 35.0;
+	private static final double ORIGIN_LON = 129.0;
+	private static final double STEP = 0.05;
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void writeThenMapSurvivesRestart() throws Exception {
+		Path file = dir.resolve("tiles.bin");
+		CoastalTileStore store = store(file);
+		store.publish(tiles(new double[] { 35.16, 129.16 }, "haeundae"), System.currentTimeMillis());
+
+		assertEquals("haeundae", idAt(store, 35.16, 129.16));
+
+		// 재기동: 생성자에서 기존 파일 매핑
+		assertEquals("haeundae", idAt(store(file), 35.161, 129.159));
+	}
+
+	@Test
+	void snapsToNearestCellAcrossNegativeAndPositiveRowCol() throws Exception {
+		CoastalTileStore store = store(dir.resolve("tiles.bin"));
+		TreeMap<Long, byte[]> built = new TreeMap<>();
+		put(built, 34.80, 128.80, "sw");   // row -4, col -4
+		put(built, 34.80, 129.20, "se");   // row -4, col +4
+		put(built, 35.20, 128.80, "nw");   // row +4, col -4
+		put(built, 35.20, 129.20, "ne");   // row +4, col +4
+		put(built, 35.00, 129.00, "origin");
+		store.publish(built, System.currentTimeMillis());
+
+		assertEquals("sw", idAt(store, 34.81, 128.79));
+		assertEquals("se", idAt(store, 34.79, 129.21));
+		assertEquals("nw", idAt(store, 35.22, 128.78));
+		assertEquals("ne", idAt(store, 35.19, 129.22));
+		assertEquals("origin", idAt(store, 35.01, 128.99));
+
+		// 격자 밖 → 라이브 경로
+		assertTrue(store.lookup(34.70, 128.80, Optional.empty()).isEmpty());
+		assertTrue(store.lookup(36.00, 130.00, Optional.empty()).isEmpty());
+	}
+
+	@Test
+	void staleOrBackDatedRequestsFallBackToLive() throws Exception {
+		CoastalTileStore store = store(dir.resolve("tiles.bin"));
+		long twoHoursAgo = System.currentTimeMillis() - Duration.ofHours(2).toMillis();
+		store.publish(tiles(new double[] { 35.16, 129.16 }, "stale"), twoHoursAgo);
+		assertTrue(store.lookup(35.16, 129.16, Optional.empty()).isEmpty());
+
+		store.publish(tiles(new double[] { 35.16, 129.16 }, "fresh"), System.currentTimeMillis());
+		assertEquals("fresh", idAt(store, 35.16, 129.16));
+		assertTrue(store.lookup(35.16, 129.16, Optional.of(ZonedDateTime.now())).isEmpty());
+	}
+
+	@Test
+	void truncatedFileIsIgnoredAtStartup() throws Exception {
+		Path file = dir.resolve("tiles.bin");
+		store(file).publish(tiles(new double[] { 35.16, 129.16 }, "cut"), System.currentTimeMillis());
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			ch.truncate(ch.size() - 10);
+		}
+
+		assertTrue(store(file).lookup(35.16, 129.16, Optional.empty()).isEmpty());
+	}
+
+	private static CoastalTileStore store(Path file) {
+		return new CoastalTileStore(null, new CoastalGrid(ORIGIN_LAT, ORIGIN_LON, STEP, ""), true, file.toString(), 90);
+	}
+
+	private static TreeMap<Long, byte[]> tiles(double[] point, String id) {
+		TreeMap<Long, byte[]> built = new TreeMap<>();
+		put(built, point[0], point[1], id);
+		return built;
+	}
+
+	private static void put(TreeMap<Long, byte[]> built, double lat, double lon, String id) {
+		String json = "{\"tide\":[{\"id\":\"" + id + "\"}],\"current\":{},\"forecast\":[],\"temp\":[],\"visibility\":null}";
+		built.put(CoastalGrid.cellKey(lat, lon, ORIGIN_LAT, ORIGIN_LON, STEP), json.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String idAt(CoastalTileStore store, double lat, double lon) {
+		Upstream u = store.lookup(lat, lon, Optional.empty()).orElseThrow();
+		assertNull(u.visibility());
+		return u.tide().get(0).path("id").asText();
+	}
+}
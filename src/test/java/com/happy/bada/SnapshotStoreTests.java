@@ -0,0 +1,155 @@
+package com.happy.bada;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.happy.bada.SnapshotStore.Kind;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotStoreTests {
+
+	private static final ZoneId KST = ZoneId.of("Asia/Seoul");
+	private static final double LAT = 35.16;
+	private static final double LON = 129.16;
+
+	private final ObjectMapper om = new ObjectMapper();
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void floorLookupWithinAndBeyondMaxGap() throws Exception {
+		ZonedDateTime t0 = ZonedDateTime.of(2026, 10, 18, 10, 0, 0, 0, KST);
+		SnapshotStore store = store(6, 0);
+		store.record(Kind.TIDE, LAT, LON, json("{\"v\":1}"), t0.toInstant());
+		store.record(Kind.TIDE, LAT, LON, json("{\"v\":2}"), t0.plusHours(1).toInstant());
+		store.close();
+
+		assertEquals(1, valueAt(store, Kind.TIDE, t0.plusMinutes(30)));
+		assertEquals(2, valueAt(store, Kind.TIDE, t0.plusHours(2)));
+		// 같은 셀(0.01°) 안의 근처 좌표
+		assertEquals(2, store.at(Kind.TIDE, 35.161, 129.159, t0.plusHours(2)).orElseThrow().path("v").asInt());
+
+		assertTrue(store.at(Kind.TIDE, LAT, LON, t0.minusMinutes(1)).isEmpty());
+		assertTrue(store.at(Kind.TIDE, LAT, LON, t0.plusHours(8)).isEmpty());   // 마지막 기록 후 7시간 > 6시간
+		assertTrue(store.at(Kind.FORECAST, LAT, LON, t0.plusHours(2)).isEmpty());
+		assertTrue(store.at(Kind.TIDE, 37.5, 126.9, t0.plusHours(2)).isEmpty());
+	}
+
+	@Test
+	void lookupFallsBackToPreviousDayPartition() throws Exception {
+		ZonedDateTime lateNight = ZonedDateTime.of(2026, 10, 17, 23, 30, 0, 0, KST);
+		SnapshotStore store = store(6, 0);
+		store.record(Kind.CURRENT, LAT, LON, json("{\"v\":17}"), lateNight.toInstant());
+		store.close();
+
+		assertTrue(Files.exists(dir.resolve("2026-10-17.snap")));
+		assertFalse(Files.exists(dir.resolve("2026-10-18.snap")));
+
+		ZonedDateTime afterMidnight = ZonedDateTime.of(2026, 10, 18, 1, 0, 0, 0, KST);
+		assertEquals(17, valueAt(store, Kind.CURRENT, afterMidnight));
+		assertTrue(store(1, 0).at(Kind.CURRENT, LAT, LON, afterMidnight).isEmpty());
+	}
+
+	@Test
+	void tornTailIsTruncatedOnNextAppend() throws Exception {
+		ZonedDateTime t0 = ZonedDateTime.of(2026, 10, 18, 10, 0, 0, 0, KST);
+		SnapshotStore first = store(6, 0);
+		first.record(Kind.TEMP, LAT, LON, json("{\"v\":1}"), t0.toInstant());
+		first.record(Kind.TEMP, LAT, LON, json("{\"v\":2}"), t0.plusMinutes(10).toInstant());
+		first.close();
+
+		// 비정상 종료로 레코드 헤더 일부만 남은 상태
+		Path file = dir.resolve("2026-10-18.snap");
+		long intact = Files.size(file);
+		Files.write(file, new byte[] { 0, 0, 0, 40, 3, 0, 0 }, StandardOpenOption.APPEND);
+
+		SnapshotStore second = store(6, 0);
+		assertEquals(2, valueAt(second, Kind.TEMP, t0.plusMinutes(20)));
+		second.record(Kind.TEMP, LAT, LON, json("{\"v\":3}"), t0.plusMinutes(30).toInstant());
+		second.close();
+
+		SnapshotStore reopened = store(6, 0);
+		assertEquals(3, valueAt(reopened, Kind.TEMP, t0.plusMinutes(40)));
+		assertEquals(3, export(reopened, LocalDate.of(2026, 10, 18), LocalDate.of(2026, 10, 18)).size());
+		assertTrue(Files.size(file) > intact);
+	}
+
+	@Test
+	void exportWritesOneNdjsonLinePerSnapshot() throws Exception {
+		ZonedDateTime d1 = ZonedDateTime.of(2026, 10, 17, 9, 0, 0, 0, KST);
+		ZonedDateTime d2 = ZonedDateTime.of(2026, 10, 18, 9, 0, 0, 0, KST);
+		SnapshotStore store = store(6, 0);
+		store.record(Kind.TIDE, LAT, LON, json("{\"v\":1}"), d1.toInstant());
+		store.record(Kind.VISIBILITY, LAT, LON, json("{\"v\":2}"), d2.toInstant());
+		store.close();
+
+		List<JsonNode> lines = export(store, LocalDate.of(2026, 10, 17), LocalDate.of(2026, 10, 18));
+		assertEquals(2, lines.size());
+
+		JsonNode first = lines.get(0);
+		assertEquals("tide", first.path("kind").asText());
+		assertEquals(LAT, first.path("lat").asDouble());
+		assertEquals(LON, first.path("lon").asDouble());
+		assertEquals(d1.toOffsetDateTime(), ZonedDateTime.parse(first.path("fetchedAt").asText()).toOffsetDateTime());
+		assertEquals(1, first.path("payload").path("v").asInt());
+		assertEquals("visibility", lines.get(1).path("kind").asText());
+
+		assertEquals(1, export(store, LocalDate.of(2026, 10, 18), LocalDate.of(2026, 10, 18)).size());
+		assertThrows(IllegalArgumentException.class,
+			() -> store.export(LocalDate.of(2026, 10, 18), LocalDate.of(2026, 10, 17), new ByteArrayOutputStream()));
+	}
+
+	@Test
+	void recordsWithinDedupeWindowAreSkipped() throws Exception {
+		ZonedDateTime t0 = ZonedDateTime.of(2026, 10, 18, 10, 0, 0, 0, KST);
+		SnapshotStore store = store(6, 15);
+		store.record(Kind.FORECAST, LAT, LON, json("{\"v\":1}"), t0.toInstant());
+		store.record(Kind.FORECAST, LAT, LON, json("{\"v\":2}"), t0.plusMinutes(5).toInstant());
+		store.record(Kind.TEMP, LAT, LON, json("{\"v\":3}"), t0.plusMinutes(5).toInstant());
+		store.record(Kind.FORECAST, LAT, LON, json("{\"v\":4}"), t0.plusMinutes(20).toInstant());
+		store.close();
+
+		assertEquals(1, valueAt(store, Kind.FORECAST, t0.plusMinutes(10)));
+		assertEquals(4, valueAt(store, Kind.FORECAST, t0.plusMinutes(25)));
+		assertEquals(3, export(store, LocalDate.of(2026, 10, 18), LocalDate.of(2026, 10, 18)).size());
+	}
+
+	private SnapshotStore store(long maxGapHours, long dedupeMinutes) {
+		return new SnapshotStore(true, dir.toString(), 0.01, 10, maxGapHours, dedupeMinutes, 7, 100);
+	}
+
+	private JsonNode json(String raw) throws Exception {
+		return om.readTree(raw);
+	}
+
+	private static int valueAt(SnapshotStore store, Kind kind, ZonedDateTime at) {
+		return store.at(kind, LAT, LON, at).orElseThrow().path("v").asInt();
+	}
+
+	private List<JsonNode> export(SnapshotStore store, LocalDate from, LocalDate to) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		store.export(from, to, out);
+		return out.toString(StandardCharsets.UTF_8).lines()
+				  .map(line -> {
+					  try {
+						  return om.readTree(line);
+					  } catch (Exception e) {
+						  throw new IllegalStateException(line, e);
+					  }
+				  })
+				  .toList();
+	}
+}
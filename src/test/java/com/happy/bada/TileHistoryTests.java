@@ -0,0 +1,78 @@
+package com.happy.bada;
+
+import com.happy.bada.CardsService.CardsResponse6;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 타일 배치가 남긴 이력을 원래 요청 좌표의 과거 now 조회로 다시 읽는지 확인
+class TileHistoryTests {
+
+	private static final double LAT = 35.1595;
+	private static final double LON = 129.1626;
+
+	private final AtomicInteger upstreamCalls = new AtomicInteger();
+	private HttpServer server;
+
+	@TempDir
+	Path dir;
+
+	@BeforeEach
+	void startUpstream() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		serve("/DIVE/tide", "[]");
+		serve("/DIVE/current", "[]");
+		serve("/DIVE/forecast", "[]");
+		serve("/DIVE/temp", "[{\"lat\":\"35.15\",\"lon\":\"129.15\",\"obs_wt\":\"18.4\"}]");
+		serve("/v1/forecast", "{\"hourly\":{\"time\":[],\"visibility\":[]}}");
+		server.start();
+	}
+
+	@AfterEach
+	void stopUpstream() {
+		server.stop(0);
+	}
+
+	@Test
+	void pastNowAtOriginalPointReadsWhatTheBatchRecorded() throws Exception {
+		String host = "http://127.0.0.1:" + server.getAddress().getPort();
+		CoastalGrid grid = new CoastalGrid(33.0, 124.5, 0.05, LAT + ":" + LON);
+		SnapshotStore history = new SnapshotStore(true, dir.resolve("history").toString(), 0.01, 0, 6, 0, 7, 100);
+		CardsService service = new CardsService("k", host + "/DIVE", host + "/v1/forecast", history, grid);
+		CoastalTileStore tiles = new CoastalTileStore(service, grid, true, dir.resolve("tiles.bin").toString(), 90);
+
+		tiles.rebuild();
+		history.close(); // 기록 대기열 비우기
+		assertTrue(tiles.lookup(LAT, LON, Optional.empty()).isPresent());
+
+		int afterBatch = upstreamCalls.get();
+		Thread.sleep(5);
+		CardsResponse6 past = service.getSeaSwimming(LAT, LON, Optional.of(ZonedDateTime.now()));
+
+		assertEquals(List.of("18.4", "°C"), past.set1().data());
+		assertEquals(afterBatch, upstreamCalls.get());
+	}
+
+	private void serve(String path, String body) {
+		server.createContext(path, ex -> {
+			upstreamCalls.incrementAndGet();
+			byte[] out = body.getBytes(StandardCharsets.UTF_8);
+			ex.getResponseHeaders().add("Content-Type", "application/json");
+			ex.sendResponseHeaders(200, out.length);
+			ex.getResponseBody().write(out);
+			ex.close();
+		});
+	}
+}